@@ -0,0 +1,147 @@
+import java.util.Arrays;
+
+// Open-addressing hash from memory address to the in-flight loads and stores touching it.
+// Addresses are tracked in 4-byte granules (the smallest access size), so aligned word,
+// double and vector accesses overlap exactly; unaligned ones are checked conservatively.
+class AddressHazardTable {
+    private static final int EMPTY = Integer.MIN_VALUE;
+    private static final int GRANULE_SHIFT = 2;
+    
+    private int[] keys;
+    private int[] loadCounts;
+    private int[] storeCounts;
+    private int size;
+    
+    public AddressHazardTable() {
+        allocate(64);
+    }
+    
+    public void addLoad(int address, int bytes) {
+        update(address, bytes, 1, 0);
+    }
+    
+    public void removeLoad(int address, int bytes) {
+        update(address, bytes, -1, 0);
+    }
+    
+    public void addStore(int address, int bytes) {
+        update(address, bytes, 0, 1);
+    }
+    
+    public void removeStore(int address, int bytes) {
+        update(address, bytes, 0, -1);
+    }
+    
+    // True if any in-flight load touches [address, address + bytes)
+    public boolean overlapsLoad(int address, int bytes) {
+        for (int g = firstGranule(address); g <= lastGranule(address, bytes); g++) {
+            int slot = find(g);
+            if (slot >= 0 && loadCounts[slot] > 0) return true;
+        }
+        return false;
+    }
+    
+    // True if any in-flight store touches [address, address + bytes)
+    public boolean overlapsStore(int address, int bytes) {
+        for (int g = firstGranule(address); g <= lastGranule(address, bytes); g++) {
+            int slot = find(g);
+            if (slot >= 0 && storeCounts[slot] > 0) return true;
+        }
+        return false;
+    }
+    
+    private void update(int address, int bytes, int loadDelta, int storeDelta) {
+        for (int g = firstGranule(address); g <= lastGranule(address, bytes); g++) {
+            int slot = find(g);
+            if (slot < 0) {
+                if ((size + 1) * 2 > keys.length) {
+                    resize();
+                }
+                slot = insert(g);
+            }
+            loadCounts[slot] += loadDelta;
+            storeCounts[slot] += storeDelta;
+            if (loadCounts[slot] == 0 && storeCounts[slot] == 0) {
+                delete(slot);
+            }
+        }
+    }
+    
+    private int firstGranule(int address) {
+        return address >> GRANULE_SHIFT;
+    }
+    
+    private int lastGranule(int address, int bytes) {
+        return (address + bytes - 1) >> GRANULE_SHIFT;
+    }
+    
+    private int home(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (keys.length - 1);
+    }
+    
+    private int find(int key) {
+        int mask = keys.length - 1;
+        for (int slot = home(key); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return slot;
+        }
+        return -1;
+    }
+    
+    private int insert(int key) {
+        int mask = keys.length - 1;
+        int slot = home(key);
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        loadCounts[slot] = 0;
+        storeCounts[slot] = 0;
+        size++;
+        return slot;
+    }
+    
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int want = home(keys[next]);
+            // Move the entry back if the hole lies on its probe path
+            if (((next - want) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                loadCounts[hole] = loadCounts[next];
+                storeCounts[hole] = storeCounts[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        loadCounts[hole] = 0;
+        storeCounts[hole] = 0;
+        size--;
+    }
+    
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldLoads = loadCounts;
+        int[] oldStores = storeCounts;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = insert(oldKeys[i]);
+                loadCounts[slot] = oldLoads[i];
+                storeCounts[slot] = oldStores[i];
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        loadCounts = new int[capacity];
+        storeCounts = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+}
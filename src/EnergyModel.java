@@ -0,0 +1,144 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Activity-based energy estimate. The simulator counts microarchitectural events and the
+// totals are priced with per-event coefficients, so coefficients can be changed after a run.
+// Energies are in picojoules and times in nanoseconds; "words" are 64-bit values, so a
+// vector operand counts once per lane.
+class EnergyModel {
+    // Per-event energy coefficients (pJ)
+    double issueEnergy = 2.0;
+    double stationWriteEnergy = 0.5;
+    double cdbWordEnergy = 1.0;
+    double cdbListenerEnergy = 0.3;
+    double registerReadEnergy = 1.0;
+    double registerWriteEnergy = 1.5;
+    double memoryByteEnergy = 0.625;
+    double clockPeriodNs = 1.0;
+    
+    private Map<String, Double> operationEnergy;
+    
+    // Activity counts
+    private long issues;
+    private long stationWrites;
+    private long cdbWords;
+    private long cdbListenerWords;
+    private long registerReads;
+    private long registerWrites;
+    private long memoryBytes;
+    private Map<String, Long> operations;
+    
+    public EnergyModel() {
+        operationEnergy = new HashMap<String, Double>();
+        operations = new TreeMap<String, Long>();
+    }
+    
+    // Energy of one functional-unit operation of the given opcode
+    public void setOperationEnergy(String op, double energy) {
+        operationEnergy.put(op, energy);
+    }
+    
+    public void recordIssue() {
+        issues++;
+    }
+    
+    public void recordStationWrite(int words) {
+        stationWrites += words;
+    }
+    
+    // One CDB transfer of the given width, latched by that many operand fields
+    public void recordBroadcast(int words, int listeners) {
+        cdbWords += words;
+        cdbListenerWords += (long)words * listeners;
+    }
+    
+    public void recordRegisterRead(int words) {
+        registerReads += words;
+    }
+    
+    public void recordRegisterWrite(int words) {
+        registerWrites += words;
+    }
+    
+    public void recordMemoryAccess(int bytes) {
+        memoryBytes += bytes;
+    }
+    
+    public void recordOperation(String op) {
+        Long count = operations.get(op);
+        operations.put(op, count != null ? count + 1 : 1L);
+    }
+    
+    public double getTotalEnergy() {
+        double energy = issues * issueEnergy
+            + stationWrites * stationWriteEnergy
+            + cdbWords * cdbWordEnergy
+            + cdbListenerWords * cdbListenerEnergy
+            + registerReads * registerReadEnergy
+            + registerWrites * registerWriteEnergy
+            + memoryBytes * memoryByteEnergy;
+        for (Map.Entry<String, Long> entry : operations.entrySet()) {
+            Double perOp = operationEnergy.get(entry.getKey());
+            if (perOp != null) {
+                energy += entry.getValue() * perOp;
+            }
+        }
+        return energy;
+    }
+    
+    // Average power in milliwatts (pJ / ns) over the given number of cycles
+    public double getAveragePower(int cycles) {
+        return cycles > 0 ? getTotalEnergy() / (cycles * clockPeriodNs) : 0.0;
+    }
+    
+    // Energy-delay product in pJ*ns
+    public double getEnergyDelayProduct(int cycles) {
+        return getTotalEnergy() * cycles * clockPeriodNs;
+    }
+    
+    public void copyCountsFrom(EnergyModel other) {
+        issues = other.issues;
+        stationWrites = other.stationWrites;
+        cdbWords = other.cdbWords;
+        cdbListenerWords = other.cdbListenerWords;
+        registerReads = other.registerReads;
+        registerWrites = other.registerWrites;
+        memoryBytes = other.memoryBytes;
+        operations = new TreeMap<String, Long>(other.operations);
+    }
+    
+    // Serialize activity counts (used for result caching)
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(issues);
+        out.writeLong(stationWrites);
+        out.writeLong(cdbWords);
+        out.writeLong(cdbListenerWords);
+        out.writeLong(registerReads);
+        out.writeLong(registerWrites);
+        out.writeLong(memoryBytes);
+        out.writeInt(operations.size());
+        for (Map.Entry<String, Long> entry : operations.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+    
+    public void readFrom(DataInput in) throws IOException {
+        issues = in.readLong();
+        stationWrites = in.readLong();
+        cdbWords = in.readLong();
+        cdbListenerWords = in.readLong();
+        registerReads = in.readLong();
+        registerWrites = in.readLong();
+        memoryBytes = in.readLong();
+        operations.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            operations.put(in.readUTF(), in.readLong());
+        }
+    }
+}
@@ -1,9 +1,20 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 class Instruction {
+    private static final Set<String> THREE_REGISTER_OPS = new HashSet<String>(Arrays.asList(
+        "ADD.D", "SUB.D", "MUL.D", "DIV.D", "ADD.S", "SUB.S", "MUL.S", "DIV.S",
+        "DADD", "DSUB", "DMUL", "DDIV", "ADDV.D", "SUBV.D", "MULV.D", "DIVV.D"));
+    private static final Set<String> CONVERSION_OPS = new HashSet<String>(Arrays.asList(
+        "CVT.D.S", "CVT.S.D", "CVT.D.W", "CVT.W.D"));
+    
     String raw;
     String operation;
     String rd;
     String rs1;
     String rs2;
+    String rs3;
     int immediate;
     
     int issueTime = 0;
@@ -20,14 +31,87 @@ class Instruction {
         String[] parts = line.split("[\\s,()]+");
         operation = parts[0];
         
-        if (operation.equals("L.D") || operation.equals("S.D")) {
+        if (isLoad() || isStore()) {
+            expectOperands(parts, 3, line);
             rd = parts[1];
             immediate = Integer.parseInt(parts[2]);
             rs1 = parts[3];
-        } else {
+        } else if (operation.equals("DADDI")) {
+            expectOperands(parts, 3, line);
+            rd = parts[1];
+            rs1 = parts[2];
+            immediate = Integer.parseInt(parts[3]);
+        } else if (CONVERSION_OPS.contains(operation)) {
+            expectOperands(parts, 2, line);
+            rd = parts[1];
+            rs1 = parts[2];
+        } else if (operation.equals("MADD.D")) {
+            // Fused multiply-add: rd = rs1 * rs2 + rs3
+            expectOperands(parts, 4, line);
+            rd = parts[1];
+            rs1 = parts[2];
+            rs2 = parts[3];
+            rs3 = parts[4];
+        } else if (THREE_REGISTER_OPS.contains(operation)) {
+            expectOperands(parts, 3, line);
             rd = parts[1];
             rs1 = parts[2];
             rs2 = parts[3];
+        } else {
+            throw new IllegalArgumentException("Unknown operation " + operation + ": " + line);
+        }
+        
+        checkRegisterClasses(line);
+    }
+    
+    private void expectOperands(String[] parts, int count, String line) {
+        if (parts.length - 1 != count) {
+            throw new IllegalArgumentException(operation + " takes " + count + " operands, got "
+                + (parts.length - 1) + ": " + line);
         }
     }
-}
\ No newline at end of file
+    
+    // Vector operations take only vector data registers and scalar ones only scalar registers
+    private void checkRegisterClasses(String line) {
+        boolean vector = isVectorOp();
+        String[] dataRegs = (isLoad() || isStore())
+            ? new String[] { rd }
+            : new String[] { rd, rs1, rs2, rs3 };
+        for (String reg : dataRegs) {
+            if (reg != null && isVectorRegister(reg) != vector) {
+                throw new IllegalArgumentException((vector ? "Vector" : "Scalar") + " operation "
+                    + operation + " cannot use register " + reg + ": " + line);
+            }
+        }
+        if ((isLoad() || isStore()) && isVectorRegister(rs1)) {
+            throw new IllegalArgumentException("Base register " + rs1 + " must be scalar: " + line);
+        }
+    }
+    
+    private static boolean isVectorRegister(String reg) {
+        return reg.matches("V\\d+");
+    }
+    
+    public boolean isVectorOp() {
+        return operation.equals("ADDV.D") || operation.equals("SUBV.D")
+            || operation.equals("MULV.D") || operation.equals("DIVV.D")
+            || operation.equals("LV.D") || operation.equals("SV.D");
+    }
+    
+    public boolean isLoad() {
+        return operation.equals("L.D") || operation.equals("L.S")
+            || operation.equals("LW") || operation.equals("LV.D");
+    }
+    
+    public boolean isStore() {
+        return operation.equals("S.D") || operation.equals("S.S")
+            || operation.equals("SW") || operation.equals("SV.D");
+    }
+    
+    // Number of bytes touched by a load or store
+    public int accessSize() {
+        if (operation.equals("LV.D") || operation.equals("SV.D")) return 8 * RegisterFile.VECTOR_LANES;
+        if (operation.equals("L.D") || operation.equals("S.D")) return 8;
+        return 4;
+    }
+}
@@ -10,6 +10,7 @@ class LoadBuffer {
     int lastDepClearCycle = 0;
     int effectiveAddress = 0;
     double loadedValue = 0.0;
+    double[] loadedVector;
     Instruction instruction;
     
     public LoadBuffer(String name) {
@@ -27,6 +28,7 @@ class LoadBuffer {
         lastDepClearCycle = 0;
         effectiveAddress = 0;
         loadedValue = 0.0;
+        loadedVector = null;
         instruction = null;
     }
 
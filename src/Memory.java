@@ -1,3 +1,7 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 class Memory {
     private byte[] data;
     
@@ -38,6 +42,35 @@ class Memory {
         }
     }
     
+    // Read a single-precision float (4 bytes) from memory
+    public float readFloat(int address) {
+        return Float.intBitsToFloat(readWord(address));
+    }
+    
+    // Write a single-precision float (4 bytes) to memory
+    public void writeFloat(int address, float value) {
+        writeWord(address, Float.floatToRawIntBits(value));
+    }
+    
+    // Serialize the full memory image (used for result caching)
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(data.length);
+        out.write(data);
+    }
+    
+    // Restores an image written by writeTo; the image must match this memory's size
+    public void readFrom(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length != data.length) {
+            throw new IOException("Memory image of " + length + " bytes, expected " + data.length);
+        }
+        in.readFully(data);
+    }
+    
+    public int size() {
+        return data.length;
+    }
+    
     // Initialize memory with some values for testing
     public void initializeMemory(int address, double value) {
         writeDouble(address, value);
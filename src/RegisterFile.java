@@ -1,19 +1,30 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.TreeMap;
 
 class RegisterFile {
+    // Number of double-precision lanes in a vector register
+    static final int VECTOR_LANES = 4;
+    
     private Map<String, Double> values;
+    private Map<String, double[]> vectors;
     private Map<String, String> tags;
     
     public RegisterFile() {
         values = new HashMap<String, Double>();
+        vectors = new HashMap<String, double[]>();
         tags = new HashMap<String, String>();
         
         for (int i = 0; i <= 31; i++) {
             values.put("F" + i, 0.0);
             values.put("R" + i, 0.0);
+            vectors.put("V" + i, new double[VECTOR_LANES]);
             tags.put("F" + i, null);
             tags.put("R" + i, null);
+            tags.put("V" + i, null);
         }
     }
     
@@ -26,6 +37,20 @@ class RegisterFile {
         values.put(reg, value);
     }
     
+    // Returns a copy of the vector register, or null if reg is not a vector register
+    public double[] getVector(String reg) {
+        double[] vec = vectors.get(reg);
+        return vec != null ? vec.clone() : null;
+    }
+    
+    public void setVector(String reg, double[] value) {
+        vectors.put(reg, value.clone());
+    }
+    
+    public boolean isVector(String reg) {
+        return vectors.containsKey(reg);
+    }
+    
     public String getTag(String reg) {
         return tags.get(reg);
     }
@@ -33,4 +58,38 @@ class RegisterFile {
     public void setTag(String reg, String tag) {
         tags.put(reg, tag);
     }
-}
\ No newline at end of file
+    
+    // Registers currently waiting on a station, mapped to that station's tag
+    public Map<String, String> getPendingTags() {
+        Map<String, String> pending = new TreeMap<String, String>();
+        for (Map.Entry<String, String> entry : tags.entrySet()) {
+            if (entry.getValue() != null) {
+                pending.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return pending;
+    }
+    
+    // Serialize register values in a fixed order (used for result caching)
+    public void writeTo(DataOutput out) throws IOException {
+        for (int i = 0; i <= 31; i++) {
+            out.writeDouble(getValue("F" + i));
+            out.writeDouble(getValue("R" + i));
+            for (double lane : vectors.get("V" + i)) {
+                out.writeDouble(lane);
+            }
+        }
+    }
+    
+    public void readFrom(DataInput in) throws IOException {
+        for (int i = 0; i <= 31; i++) {
+            values.put("F" + i, in.readDouble());
+            values.put("R" + i, in.readDouble());
+            double[] vec = new double[VECTOR_LANES];
+            for (int j = 0; j < VECTOR_LANES; j++) {
+                vec[j] = in.readDouble();
+            }
+            vectors.put("V" + i, vec);
+        }
+    }
+}
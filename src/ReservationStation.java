@@ -4,10 +4,16 @@ class ReservationStation {
     String operation;
     double vj = 0.0;
     double vk = 0.0;
+    double vl = 0.0;
+    double[] vjVec;
+    double[] vkVec;
+    double[] vlVec;
     String qj = null;
     String qk = null;
+    String ql = null;
     boolean vjReady = false;
     boolean vkReady = false;
+    boolean vlReady = false;
     int cyclesLeft = 0;
     int lastDepClearCycle = 0;
     Instruction instruction;
@@ -21,10 +27,16 @@ class ReservationStation {
         operation = null;
         vj = 0.0;
         vk = 0.0;
+        vl = 0.0;
+        vjVec = null;
+        vkVec = null;
+        vlVec = null;
         qj = null;
         qk = null;
+        ql = null;
         vjReady = false;
         vkReady = false;
+        vlReady = false;
         cyclesLeft = 0;
         lastDepClearCycle = 0;
         instruction = null;
@@ -0,0 +1,124 @@
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+// Content-addressed on-disk store of simulation results, evicted least-recently-used
+// once the directory grows past maxBytes. Each entry is prefixed with a SHA-256 digest
+// of its payload. Failures are treated as misses so that a broken cache never stops a
+// simulation.
+class ResultCache {
+    private static final int DIGEST_LENGTH = 32;
+    
+    private File directory;
+    private long maxBytes;
+    
+    public ResultCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        directory.mkdirs();
+    }
+    
+    public byte[] get(String key) {
+        File file = entryFile(key);
+        if (!file.isFile()) return null;
+        
+        try {
+            long length = file.length();
+            if (length < DIGEST_LENGTH || length > Integer.MAX_VALUE) {
+                remove(key);
+                return null;
+            }
+            byte[] stored = new byte[(int)length];
+            DataInputStream in = new DataInputStream(new FileInputStream(file));
+            try {
+                in.readFully(stored);
+            } finally {
+                in.close();
+            }
+            
+            byte[] data = Arrays.copyOfRange(stored, DIGEST_LENGTH, stored.length);
+            byte[] expected = Arrays.copyOfRange(stored, 0, DIGEST_LENGTH);
+            if (!MessageDigest.isEqual(expected, digest(data))) {
+                // Damaged entry: drop it so the result gets recomputed
+                remove(key);
+                return null;
+            }
+            // Modification time doubles as the LRU timestamp
+            file.setLastModified(System.currentTimeMillis());
+            return data;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    public void remove(String key) {
+        entryFile(key).delete();
+    }
+    
+    public void put(String key, byte[] data) {
+        File file = entryFile(key);
+        File temp = null;
+        try {
+            // A unique temp file per writer, so concurrent misses on one key never interleave
+            temp = File.createTempFile(key, ".tmp", directory);
+            OutputStream out = new FileOutputStream(temp);
+            try {
+                out.write(digest(data));
+                out.write(data);
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                return;
+            }
+        } catch (IOException e) {
+            if (temp != null) {
+                temp.delete();
+            }
+            return;
+        }
+        evict();
+    }
+    
+    private static byte[] digest(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private File entryFile(String key) {
+        return new File(directory, key + ".bin");
+    }
+    
+    private void evict() {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".bin");
+            }
+        });
+        if (files == null) return;
+        
+        long total = 0;
+        for (File f : files) {
+            total += f.length();
+        }
+        if (total <= maxBytes) return;
+        
+        Arrays.sort(files, new Comparator<File>() {
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (File f : files) {
+            if (total <= maxBytes) break;
+            long size = f.length();
+            if (f.delete()) {
+                total -= size;
+            }
+        }
+    }
+}
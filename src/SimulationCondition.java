@@ -0,0 +1,4 @@
+// Stop condition for TomasuloSimulator.runUntil(), checked after every cycle
+interface SimulationCondition {
+    boolean isMet(TomasuloSimulator sim);
+}
@@ -0,0 +1,4 @@
+// Callback invoked by TomasuloSimulator after every simulated cycle
+interface SimulationListener {
+    void cycleCompleted(TomasuloSimulator sim, int cycle);
+}
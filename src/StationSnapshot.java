@@ -0,0 +1,31 @@
+// Immutable copy of a reservation station or load/store buffer at one cycle
+class StationSnapshot {
+    final String name;
+    final boolean busy;
+    final String operation;
+    final String instruction;
+    // Tags still awaited on the CDB (base/value for load and store buffers)
+    final String qj;
+    final String qk;
+    final String ql;
+    final int cyclesLeft;
+    
+    StationSnapshot(String name, boolean busy, String operation, Instruction instruction,
+                    String qj, String qk, String ql, int cyclesLeft) {
+        this.name = name;
+        this.busy = busy;
+        this.operation = operation;
+        this.instruction = instruction != null ? instruction.raw : null;
+        this.qj = qj;
+        this.qk = qk;
+        this.ql = ql;
+        this.cyclesLeft = cyclesLeft;
+    }
+    
+    @Override
+    public String toString() {
+        if (!busy) return name + ": free";
+        return name + ": " + instruction + " (Qj=" + qj + ", Qk=" + qk + ", Ql=" + ql
+            + ", cyclesLeft=" + cyclesLeft + ")";
+    }
+}
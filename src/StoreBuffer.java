@@ -7,6 +7,7 @@ class StoreBuffer {
     String qBase = null;
     boolean baseReady = false;
     double vValue = 0.0;
+    double[] vVector;
     String qValue = null;
     boolean valueReady = false;
     int cyclesLeft = 0;
@@ -26,6 +27,7 @@ class StoreBuffer {
         qBase = null;
         baseReady = false;
         vValue = 0.0;
+        vVector = null;
         qValue = null;
         valueReady = false;
         cyclesLeft = 0;
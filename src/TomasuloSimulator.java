@@ -1,52 +1,154 @@
 import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class TomasuloSimulator {
     
+    // Bump whenever simulation semantics or the cached result layout change
+    private static final int CACHE_FORMAT_VERSION = 5;
+    
     private List<Instruction> instructions;
     private RegisterFile registerFile;
     private Memory memory;
-    private List<ReservationStation> addSubStations;
-    private List<ReservationStation> mulDivStations;
+    private Map<String, List<ReservationStation>> stationGroups;
     private List<LoadBuffer> loadBuffers;
     private List<StoreBuffer> storeBuffers;
+    private AddressHazardTable hazards;
+    private int loadsAwaitingBase;
+    private int storesAwaitingBase;
+    private int busyLoads;
+    private int busyStores;
     private Map<String, Integer> latencies;
+    private Map<String, String> opUnits;
+    private List<SimulationListener> listeners;
     private int cycle;
     private int pc;
+    private int maxCycles;
+    private long laneOps;
+    private EnergyModel energyModel;
+    private ResultCache resultCache;
+    private boolean resultFromCache;
     
     public TomasuloSimulator() {
         instructions = new ArrayList<Instruction>();
         registerFile = new RegisterFile();
         memory = new Memory(4096); // 4KB memory
-        addSubStations = new ArrayList<ReservationStation>();
-        mulDivStations = new ArrayList<ReservationStation>();
+        stationGroups = new LinkedHashMap<String, List<ReservationStation>>();
         loadBuffers = new ArrayList<LoadBuffer>();
         storeBuffers = new ArrayList<StoreBuffer>();
+        hazards = new AddressHazardTable();
+        loadsAwaitingBase = 0;
+        storesAwaitingBase = 0;
+        busyLoads = 0;
+        busyStores = 0;
         latencies = new HashMap<String, Integer>();
+        opUnits = new HashMap<String, String>();
+        // Copy-on-write so listeners may add or remove listeners from inside a callback
+        listeners = new CopyOnWriteArrayList<SimulationListener>();
         cycle = 0;
         pc = 0;
+        maxCycles = 1000;
+        laneOps = 0;
+        energyModel = new EnergyModel();
         
         // Initialize stations
-        for (int i = 1; i <= 3; i++) {
-            addSubStations.add(new ReservationStation("Add" + i));
+        setStationCount("Add", 3);
+        setStationCount("Mul", 2);
+        setStationCount("Int", 2);
+        setStationCount("Vec", 2);
+        setStationCount("Load", 3);
+        setStationCount("Store", 2);
+        
+        // Map operations to functional-unit classes and set latencies and energy (pJ) per op
+        defineOp("ADD.D", "Add", 2, 4.0);
+        defineOp("SUB.D", "Add", 2, 4.0);
+        defineOp("ADD.S", "Add", 2, 2.0);
+        defineOp("SUB.S", "Add", 2, 2.0);
+        defineOp("CVT.D.S", "Add", 1, 1.5);
+        defineOp("CVT.S.D", "Add", 1, 1.5);
+        defineOp("CVT.D.W", "Add", 2, 2.0);
+        defineOp("CVT.W.D", "Add", 2, 2.0);
+        defineOp("MUL.D", "Mul", 10, 12.0);
+        defineOp("DIV.D", "Mul", 40, 40.0);
+        defineOp("MUL.S", "Mul", 6, 6.0);
+        defineOp("DIV.S", "Mul", 20, 20.0);
+        defineOp("MADD.D", "Mul", 12, 15.0);
+        defineOp("DADD", "Int", 1, 1.0);
+        defineOp("DADDI", "Int", 1, 1.0);
+        defineOp("DSUB", "Int", 1, 1.0);
+        defineOp("DMUL", "Int", 4, 6.0);
+        defineOp("DDIV", "Int", 20, 25.0);
+        defineOp("ADDV.D", "Vec", 4, 14.0);
+        defineOp("SUBV.D", "Vec", 4, 14.0);
+        defineOp("MULV.D", "Vec", 12, 42.0);
+        defineOp("DIVV.D", "Vec", 48, 140.0);
+        defineOp("L.D", "Load", 2, 1.0);
+        defineOp("L.S", "Load", 2, 1.0);
+        defineOp("LW", "Load", 2, 1.0);
+        defineOp("LV.D", "Load", 4, 1.0);
+        defineOp("S.D", "Store", 2, 1.0);
+        defineOp("S.S", "Store", 2, 1.0);
+        defineOp("SW", "Store", 2, 1.0);
+        defineOp("SV.D", "Store", 4, 1.0);
+    }
+    
+    private void defineOp(String op, String unitClass, int latency, double energy) {
+        opUnits.put(op, unitClass);
+        latencies.put(op, latency);
+        energyModel.setOperationEnergy(op, energy);
+    }
+    
+    // Sets the execution latency of an operation
+    public void setLatency(String op, int cycles) {
+        if (!latencies.containsKey(op)) {
+            throw new IllegalArgumentException("Unknown operation " + op);
         }
-        for (int i = 1; i <= 2; i++) {
-            mulDivStations.add(new ReservationStation("Mul" + i));
+        if (cycles < 1) {
+            throw new IllegalArgumentException("Latency of " + op + " must be at least 1 cycle: " + cycles);
         }
-        for (int i = 1; i <= 3; i++) {
-            loadBuffers.add(new LoadBuffer("Load" + i));
+        latencies.put(op, cycles);
+    }
+    
+    // Routes an arithmetic operation to a reservation-station class ("Add", "Mul", "Int", "Vec"
+    // or one created with setStationCount); loads and stores always use the load/store buffers
+    public void setUnit(String op, String unitClass) {
+        String current = opUnits.get(op);
+        if (current == null) {
+            throw new IllegalArgumentException("Unknown operation " + op);
         }
-        for (int i = 1; i <= 2; i++) {
-            storeBuffers.add(new StoreBuffer("Store" + i));
+        if ("Load".equals(current) || "Store".equals(current)) {
+            throw new IllegalArgumentException("Cannot reroute memory operation " + op);
+        }
+        if (!stationGroups.containsKey(unitClass)) {
+            throw new IllegalArgumentException("No reservation stations of class " + unitClass);
+        }
+        opUnits.put(op, unitClass);
+    }
+    
+    // Replaces the stations of a functional-unit class; call before run()
+    public void setStationCount(String unitClass, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Unit class " + unitClass + " needs at least one station: " + count);
+        }
+        if (unitClass.equals("Load")) {
+            loadBuffers.clear();
+            for (int i = 1; i <= count; i++) {
+                loadBuffers.add(new LoadBuffer("Load" + i));
+            }
+        } else if (unitClass.equals("Store")) {
+            storeBuffers.clear();
+            for (int i = 1; i <= count; i++) {
+                storeBuffers.add(new StoreBuffer("Store" + i));
+            }
+        } else {
+            List<ReservationStation> stations = new ArrayList<ReservationStation>();
+            for (int i = 1; i <= count; i++) {
+                stations.add(new ReservationStation(unitClass + i));
+            }
+            stationGroups.put(unitClass, stations);
         }
-        
-        // Set latencies
-        latencies.put("ADD.D", 2);
-        latencies.put("SUB.D", 2);
-        latencies.put("MUL.D", 10);
-        latencies.put("DIV.D", 40);
-        latencies.put("L.D", 2);
-        latencies.put("S.D", 2);
     }
     
     public void loadProgram(String filename) throws IOException {
@@ -59,13 +161,20 @@ public class TomasuloSimulator {
             }
         }
         reader.close();
-        System.out.println("Loaded " + instructions.size() + " instructions");
+    }
+    
+    public void addInstruction(String line) {
+        instructions.add(new Instruction(line.trim()));
     }
     
     public void setRegister(String reg, double value) {
         registerFile.setValue(reg, value);
     }
     
+    public void setVectorRegister(String reg, double[] value) {
+        registerFile.setVector(reg, value);
+    }
+    
     public void initializeMemory(int address, double value) {
         memory.initializeMemory(address, value);
     }
@@ -74,17 +183,272 @@ public class TomasuloSimulator {
         return memory.readDouble(address);
     }
     
+    // Reads count consecutive doubles starting at address
+    public double[] readMemoryRange(int address, int count) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = memory.readDouble(address + i * 8);
+        }
+        return values;
+    }
+    
+    public double getRegister(String reg) {
+        return registerFile.getValue(reg);
+    }
+    
+    public double[] getVectorRegister(String reg) {
+        return registerFile.getVector(reg);
+    }
+    
+    public Map<String, String> getRegisterTags() {
+        return registerFile.getPendingTags();
+    }
+    
+    public List<StationSnapshot> getStations() {
+        List<StationSnapshot> snapshots = new ArrayList<StationSnapshot>();
+        for (List<ReservationStation> stations : stationGroups.values()) {
+            for (ReservationStation rs : stations) {
+                snapshots.add(new StationSnapshot(rs.name, rs.busy, rs.operation, rs.instruction,
+                    rs.qj, rs.qk, rs.ql, rs.cyclesLeft));
+            }
+        }
+        for (LoadBuffer lb : loadBuffers) {
+            snapshots.add(new StationSnapshot(lb.name, lb.busy, lb.operation, lb.instruction,
+                lb.qBase, null, null, lb.cyclesLeft));
+        }
+        for (StoreBuffer sb : storeBuffers) {
+            snapshots.add(new StationSnapshot(sb.name, sb.busy, sb.operation, sb.instruction,
+                sb.qBase, sb.qValue, null, sb.cyclesLeft));
+        }
+        return snapshots;
+    }
+    
+    public List<Instruction> getInstructions() {
+        return Collections.unmodifiableList(instructions);
+    }
+    
+    public int getCycle() {
+        return cycle;
+    }
+    
+    public int getIssuedCount() {
+        return pc;
+    }
+    
+    public long getLaneOps() {
+        return laneOps;
+    }
+    
+    // Activity counts and energy coefficients; adjust coefficients before or after a run
+    public EnergyModel getEnergyModel() {
+        return energyModel;
+    }
+    
+    public void setMaxCycles(int maxCycles) {
+        this.maxCycles = maxCycles;
+    }
+    
+    public void addListener(SimulationListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(SimulationListener listener) {
+        listeners.remove(listener);
+    }
+    
+    public void setResultCache(ResultCache cache) {
+        this.resultCache = cache;
+    }
+    
+    // True if the last run() was answered from the result cache
+    public boolean isResultFromCache() {
+        return resultFromCache;
+    }
+    
     public void run() {
-        System.out.println("\n=== Starting Simulation ===\n");
+        // Only a fresh, unobserved run can be replaced by a cached result
+        String cacheKey = null;
+        if (resultCache != null && cycle == 0 && listeners.isEmpty()) {
+            cacheKey = computeCacheKey();
+            byte[] cached = resultCache.get(cacheKey);
+            if (cached != null) {
+                if (restoreResult(cached)) {
+                    resultFromCache = true;
+                    return;
+                }
+                resultCache.remove(cacheKey);
+            }
+        }
         
-        while (!isComplete() && cycle < 1000) {
-            cycle++;
-            writeBack();
-            execute();
-            issue();
+        while (step()) {
+        }
+        
+        if (cacheKey != null && isComplete()) {
+            byte[] result = serializeResult();
+            if (result != null) {
+                resultCache.put(cacheKey, result);
+            }
+        }
+    }
+    
+    // Hash of the decoded program, initial machine state and machine configuration
+    private String computeCacheKey() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(CACHE_FORMAT_VERSION);
+            out.writeInt(maxCycles);
+            
+            out.writeInt(instructions.size());
+            for (Instruction instr : instructions) {
+                writeNullableString(out, instr.operation);
+                writeNullableString(out, instr.rd);
+                writeNullableString(out, instr.rs1);
+                writeNullableString(out, instr.rs2);
+                writeNullableString(out, instr.rs3);
+                out.writeInt(instr.immediate);
+            }
+            
+            out.writeInt(stationGroups.size());
+            for (Map.Entry<String, List<ReservationStation>> entry : stationGroups.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+            }
+            out.writeInt(loadBuffers.size());
+            out.writeInt(storeBuffers.size());
+            
+            Map<String, Integer> sortedLatencies = new TreeMap<String, Integer>(latencies);
+            out.writeInt(sortedLatencies.size());
+            for (Map.Entry<String, Integer> entry : sortedLatencies.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+            Map<String, String> sortedUnits = new TreeMap<String, String>(opUnits);
+            out.writeInt(sortedUnits.size());
+            for (Map.Entry<String, String> entry : sortedUnits.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue());
+            }
+            
+            registerFile.writeTo(out);
+            memory.writeTo(out);
+            out.flush();
+            
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray());
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b & 0xFF));
+            }
+            return hex.toString();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+    
+    // Timing table, summary stats and final architectural state of a completed run
+    private byte[] serializeResult() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(instructions.size());
+            for (Instruction instr : instructions) {
+                out.writeInt(instr.issueTime);
+                out.writeInt(instr.execStartTime);
+                out.writeInt(instr.execEndTime);
+                out.writeInt(instr.writeTime);
+            }
+            out.writeInt(cycle);
+            out.writeLong(laneOps);
+            energyModel.writeTo(out);
+            registerFile.writeTo(out);
+            memory.writeTo(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    private boolean restoreResult(byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readInt() != instructions.size()) return false;
+            int[] times = new int[instructions.size() * 4];
+            for (int i = 0; i < times.length; i++) {
+                times[i] = in.readInt();
+            }
+            int cachedCycle = in.readInt();
+            long cachedLaneOps = in.readLong();
+            EnergyModel cachedEnergy = new EnergyModel();
+            cachedEnergy.readFrom(in);
+            RegisterFile cachedRegisters = new RegisterFile();
+            cachedRegisters.readFrom(in);
+            Memory cachedMemory = new Memory(memory.size());
+            cachedMemory.readFrom(in);
+            if (in.read() != -1) return false;
+            
+            for (int i = 0; i < instructions.size(); i++) {
+                Instruction instr = instructions.get(i);
+                instr.issueTime = times[i * 4];
+                instr.execStartTime = times[i * 4 + 1];
+                instr.execEndTime = times[i * 4 + 2];
+                instr.writeTime = times[i * 4 + 3];
+            }
+            cycle = cachedCycle;
+            laneOps = cachedLaneOps;
+            energyModel.copyCountsFrom(cachedEnergy);
+            registerFile = cachedRegisters;
+            memory = cachedMemory;
+            pc = instructions.size();
+            return true;
+        } catch (IOException e) {
+            // Truncated or corrupt entry: fall back to simulating
+            return false;
+        } catch (RuntimeException e) {
+            return false;
         }
+    }
+    
+    // Advances one cycle; returns false once the program has finished or hit the cycle limit
+    public boolean step() {
+        if (isComplete() || cycle >= maxCycles) return false;
+        
+        cycle++;
+        writeBack();
+        execute();
+        issue();
         
-        printResults();
+        for (SimulationListener listener : listeners) {
+            listener.cycleCompleted(this, cycle);
+        }
+        return true;
+    }
+    
+    // Advances up to n cycles; returns the number of cycles actually simulated
+    public int step(int n) {
+        int done = 0;
+        while (done < n && step()) {
+            done++;
+        }
+        return done;
+    }
+    
+    // Steps until the condition holds after a cycle; returns true if it was met
+    public boolean runUntil(SimulationCondition condition) {
+        if (condition.isMet(this)) return true;
+        while (step()) {
+            if (condition.isMet(this)) return true;
+        }
+        return false;
     }
     
     private void issue() {
@@ -95,33 +459,41 @@ public class TomasuloSimulator {
         
         // Find free station
         Object station = null;
-        if (op.equals("ADD.D") || op.equals("SUB.D")) {
-            station = findFreeStation(addSubStations);
-        } else if (op.equals("MUL.D") || op.equals("DIV.D")) {
-            station = findFreeStation(mulDivStations);
-        } else if (op.equals("L.D")) {
+        if (instr.isLoad()) {
             station = findFreeLoad();
-        } else if (op.equals("S.D")) {
+        } else if (instr.isStore()) {
             station = findFreeStore();
+        } else if (opUnits.containsKey(op)) {
+            List<ReservationStation> stations = stationGroups.get(opUnits.get(op));
+            if (stations != null) {
+                station = findFreeStation(stations);
+            }
         }
         
         if (station == null) return;
         
         // ADDRESS CLASH DETECTION for Load/Store instructions
-        if (op.equals("L.D") || op.equals("S.D")) {
+        if (instr.isLoad() || instr.isStore()) {
             // Calculate the effective address for this instruction
             String baseReg = instr.rs1;
             int offset = instr.immediate;
             int effectiveAddr = (int)registerFile.getValue(baseReg) + offset;
+            int size = instr.accessSize();
             
-            if (op.equals("L.D")) {
-                // Load: Check if any STORE buffer has the same address
-                if (hasAddressClashWithStores(effectiveAddr)) {
+            if (registerFile.getTag(baseReg) != null) {
+                // Base still being produced: the address is unknown, so any
+                // in-flight access that could conflict is conservatively a clash
+                if (busyStores > 0 || (instr.isStore() && busyLoads > 0)) {
+                    return;
+                }
+            } else if (instr.isLoad()) {
+                // Load: Check if any STORE buffer overlaps the address range
+                if (hasAddressClashWithStores(effectiveAddr, size)) {
                     return; // Cannot issue, address clash with pending store
                 }
-            } else if (op.equals("S.D")) {
-                // Store: Check if any LOAD or STORE buffer has the same address
-                if (hasAddressClashWithLoads(effectiveAddr) || hasAddressClashWithStores(effectiveAddr)) {
+            } else {
+                // Store: Check if any LOAD or STORE buffer overlaps the address range
+                if (hasAddressClashWithLoads(effectiveAddr, size) || hasAddressClashWithStores(effectiveAddr, size)) {
                     return; // Cannot issue, address clash with pending load/store
                 }
             }
@@ -130,6 +502,7 @@ public class TomasuloSimulator {
         if (station instanceof LoadBuffer) {
             LoadBuffer lb = (LoadBuffer) station;
             lb.busy = true;
+            busyLoads++;
             lb.operation = op;
             lb.instruction = instr;
             lb.cyclesLeft = latencies.get(op);
@@ -139,9 +512,12 @@ public class TomasuloSimulator {
             String baseTag = registerFile.getTag(baseReg);
             if (baseTag != null) {
                 lb.qBase = baseTag;
+                loadsAwaitingBase++;
             } else {
                 lb.vBase = registerFile.getValue(baseReg);
+                recordOperandRead(baseReg);
                 lb.baseReady = true;
+                trackLoadAddress(lb);
             }
             
             registerFile.setTag(instr.rd, lb.name);
@@ -149,6 +525,7 @@ public class TomasuloSimulator {
         } else if (station instanceof StoreBuffer) {
             StoreBuffer sb = (StoreBuffer) station;
             sb.busy = true;
+            busyStores++;
             sb.operation = op;
             sb.instruction = instr;
             sb.cyclesLeft = latencies.get(op);
@@ -158,9 +535,12 @@ public class TomasuloSimulator {
             String baseTag = registerFile.getTag(baseReg);
             if (baseTag != null) {
                 sb.qBase = baseTag;
+                storesAwaitingBase++;
             } else {
                 sb.vBase = registerFile.getValue(baseReg);
+                recordOperandRead(baseReg);
                 sb.baseReady = true;
+                trackStoreAddress(sb);
             }
             
             String valueReg = instr.rd;
@@ -169,6 +549,8 @@ public class TomasuloSimulator {
                 sb.qValue = valueTag;
             } else {
                 sb.vValue = registerFile.getValue(valueReg);
+                sb.vVector = registerFile.getVector(valueReg);
+                recordOperandRead(valueReg);
                 sb.valueReady = true;
             }
             
@@ -185,28 +567,69 @@ public class TomasuloSimulator {
                 rs.qj = tag1;
             } else {
                 rs.vj = registerFile.getValue(src1);
+                rs.vjVec = registerFile.getVector(src1);
+                recordOperandRead(src1);
                 rs.vjReady = true;
             }
             
             String src2 = instr.rs2;
-            String tag2 = registerFile.getTag(src2);
-            if (tag2 != null) {
-                rs.qk = tag2;
-            } else {
-                rs.vk = registerFile.getValue(src2);
+            if (src2 == null) {
+                // Single-source or immediate operation
+                rs.vk = instr.immediate;
                 rs.vkReady = true;
+            } else {
+                String tag2 = registerFile.getTag(src2);
+                if (tag2 != null) {
+                    rs.qk = tag2;
+                } else {
+                    rs.vk = registerFile.getValue(src2);
+                    rs.vkVec = registerFile.getVector(src2);
+                    recordOperandRead(src2);
+                    rs.vkReady = true;
+                }
+            }
+            
+            String src3 = instr.rs3;
+            if (src3 == null) {
+                rs.vlReady = true;
+            } else {
+                String tag3 = registerFile.getTag(src3);
+                if (tag3 != null) {
+                    rs.ql = tag3;
+                } else {
+                    rs.vl = registerFile.getValue(src3);
+                    rs.vlVec = registerFile.getVector(src3);
+                    recordOperandRead(src3);
+                    rs.vlReady = true;
+                }
             }
             
             registerFile.setTag(instr.rd, rs.name);
         }
         
+        // Allocating the entry writes its opcode and tag fields
+        energyModel.recordIssue();
+        energyModel.recordStationWrite(1);
+        
         instr.issueTime = cycle;
         pc++;
     }
     
+    // A source value read from the register file and latched into a station
+    private void recordOperandRead(String reg) {
+        int words = registerWords(reg);
+        energyModel.recordRegisterRead(words);
+        energyModel.recordStationWrite(words);
+    }
+    
+    private int registerWords(String reg) {
+        return registerFile.isVector(reg) ? RegisterFile.VECTOR_LANES : 1;
+    }
+    
     private void execute() {
-        executeStations(addSubStations);
-        executeStations(mulDivStations);
+        for (List<ReservationStation> stations : stationGroups.values()) {
+            executeStations(stations);
+        }
         executeLoads();
         executeStores();
     }
@@ -214,7 +637,7 @@ public class TomasuloSimulator {
     private void executeStations(List<ReservationStation> stations) {
         for (ReservationStation rs : stations) {
             if (!rs.busy) continue;
-            if (!rs.vjReady || !rs.vkReady) continue;
+            if (!rs.vjReady || !rs.vkReady || !rs.vlReady) continue;
             
             // Only start execution if dependencies cleared in a previous cycle
             if (rs.instruction.execStartTime == 0) {
@@ -229,6 +652,7 @@ public class TomasuloSimulator {
                 rs.cyclesLeft--;
                 if (rs.cyclesLeft == 0) {
                     rs.instruction.execEndTime = cycle;
+                    energyModel.recordOperation(rs.operation);
                 }
             }
         }
@@ -242,8 +666,6 @@ public class TomasuloSimulator {
             if (lb.instruction.execStartTime == 0) {
                 if (lb.lastDepClearCycle == 0 || cycle > lb.lastDepClearCycle) {
                     lb.instruction.execStartTime = cycle;
-                    // Calculate effective address when execution starts
-                    lb.effectiveAddress = (int)lb.vBase + lb.address;
                 } else {
                     continue;
                 }
@@ -254,7 +676,7 @@ public class TomasuloSimulator {
                 if (lb.cyclesLeft == 0) {
                     lb.instruction.execEndTime = cycle;
                     // Perform the actual load from memory
-                    lb.loadedValue = memory.readDouble(lb.effectiveAddress);
+                    performLoad(lb);
                 }
             }
         }
@@ -268,8 +690,6 @@ public class TomasuloSimulator {
             if (sb.instruction.execStartTime == 0) {
                 if (sb.lastDepClearCycle == 0 || cycle > sb.lastDepClearCycle) {
                     sb.instruction.execStartTime = cycle;
-                    // Calculate effective address when execution starts
-                    sb.effectiveAddress = (int)sb.vBase + sb.address;
                 } else {
                     continue;
                 }
@@ -280,15 +700,53 @@ public class TomasuloSimulator {
                 if (sb.cyclesLeft == 0) {
                     sb.instruction.execEndTime = cycle;
                     // Perform the actual store to memory
-                    memory.writeDouble(sb.effectiveAddress, sb.vValue);
+                    performStore(sb);
                 }
             }
         }
     }
     
+    private void performLoad(LoadBuffer lb) {
+        String op = lb.operation;
+        int addr = lb.effectiveAddress;
+        energyModel.recordOperation(op);
+        energyModel.recordMemoryAccess(lb.instruction.accessSize());
+        if (op.equals("L.D")) {
+            lb.loadedValue = memory.readDouble(addr);
+        } else if (op.equals("L.S")) {
+            lb.loadedValue = memory.readFloat(addr);
+        } else if (op.equals("LW")) {
+            lb.loadedValue = memory.readWord(addr);
+        } else if (op.equals("LV.D")) {
+            lb.loadedVector = new double[RegisterFile.VECTOR_LANES];
+            for (int i = 0; i < RegisterFile.VECTOR_LANES; i++) {
+                lb.loadedVector[i] = memory.readDouble(addr + i * 8);
+            }
+        }
+    }
+    
+    private void performStore(StoreBuffer sb) {
+        String op = sb.operation;
+        int addr = sb.effectiveAddress;
+        energyModel.recordOperation(op);
+        energyModel.recordMemoryAccess(sb.instruction.accessSize());
+        if (op.equals("S.D")) {
+            memory.writeDouble(addr, sb.vValue);
+        } else if (op.equals("S.S")) {
+            memory.writeFloat(addr, (float)sb.vValue);
+        } else if (op.equals("SW")) {
+            memory.writeWord(addr, (int)sb.vValue);
+        } else if (op.equals("SV.D")) {
+            for (int i = 0; i < RegisterFile.VECTOR_LANES; i++) {
+                memory.writeDouble(addr + i * 8, sb.vVector[i]);
+            }
+        }
+    }
+    
     private void writeBack() {
-        writeBackStations(addSubStations);
-        writeBackStations(mulDivStations);
+        for (List<ReservationStation> stations : stationGroups.values()) {
+            writeBackStations(stations);
+        }
         writeBackLoads();
         writeBackStores();
     }
@@ -299,11 +757,20 @@ public class TomasuloSimulator {
             if (rs.cyclesLeft != 0) continue;
             if (rs.instruction.execEndTime != cycle - 1) continue;
             
-            double result = computeResult(rs);
-            broadcast(rs.name, result);
-            
             String dest = rs.instruction.rd;
-            registerFile.setValue(dest, result);
+            if (registerFile.isVector(dest)) {
+                double[] result = computeVectorResult(rs);
+                broadcast(rs.name, 0.0, result);
+                registerFile.setVector(dest, result);
+                energyModel.recordRegisterWrite(RegisterFile.VECTOR_LANES);
+                laneOps += RegisterFile.VECTOR_LANES;
+            } else {
+                double result = computeResult(rs);
+                broadcast(rs.name, result, null);
+                registerFile.setValue(dest, result);
+                energyModel.recordRegisterWrite(1);
+                laneOps++;
+            }
             if (rs.name.equals(registerFile.getTag(dest))) {
                 registerFile.setTag(dest, null);
             }
@@ -320,16 +787,23 @@ public class TomasuloSimulator {
             if (lb.instruction.execEndTime != cycle - 1) continue;
             
             // Use the value loaded from memory
-            double result = lb.loadedValue;
-            broadcast(lb.name, result);
-            
             String dest = lb.instruction.rd;
-            registerFile.setValue(dest, result);
+            if (lb.loadedVector != null) {
+                broadcast(lb.name, 0.0, lb.loadedVector);
+                registerFile.setVector(dest, lb.loadedVector);
+                energyModel.recordRegisterWrite(RegisterFile.VECTOR_LANES);
+            } else {
+                broadcast(lb.name, lb.loadedValue, null);
+                registerFile.setValue(dest, lb.loadedValue);
+                energyModel.recordRegisterWrite(1);
+            }
             if (lb.name.equals(registerFile.getTag(dest))) {
                 registerFile.setTag(dest, null);
             }
             
             lb.instruction.writeTime = cycle;
+            hazards.removeLoad(lb.effectiveAddress, lb.instruction.accessSize());
+            busyLoads--;
             lb.clear();
         }
     }
@@ -341,38 +815,41 @@ public class TomasuloSimulator {
             if (sb.instruction.execEndTime != cycle - 1) continue;
             
             sb.instruction.writeTime = cycle;
+            hazards.removeStore(sb.effectiveAddress, sb.instruction.accessSize());
+            busyStores--;
             sb.clear();
         }
     }
     
-    private void broadcast(String tag, double value) {
-        for (ReservationStation rs : addSubStations) {
-            if (tag.equals(rs.qj)) {
-                rs.vj = value;
-                rs.qj = null;
-                rs.vjReady = true;
-                rs.lastDepClearCycle = cycle;
-            }
-            if (tag.equals(rs.qk)) {
-                rs.vk = value;
-                rs.qk = null;
-                rs.vkReady = true;
-                rs.lastDepClearCycle = cycle;
-            }
-        }
-        
-        for (ReservationStation rs : mulDivStations) {
-            if (tag.equals(rs.qj)) {
-                rs.vj = value;
-                rs.qj = null;
-                rs.vjReady = true;
-                rs.lastDepClearCycle = cycle;
-            }
-            if (tag.equals(rs.qk)) {
-                rs.vk = value;
-                rs.qk = null;
-                rs.vkReady = true;
-                rs.lastDepClearCycle = cycle;
+    // Vector results travel on the CDB as a lane array; scalar results leave vector null
+    private void broadcast(String tag, double value, double[] vector) {
+        int latches = 0;
+        for (List<ReservationStation> stations : stationGroups.values()) {
+            for (ReservationStation rs : stations) {
+                if (tag.equals(rs.qj)) {
+                    rs.vj = value;
+                    rs.vjVec = vector;
+                    rs.qj = null;
+                    rs.vjReady = true;
+                    rs.lastDepClearCycle = cycle;
+                    latches++;
+                }
+                if (tag.equals(rs.qk)) {
+                    rs.vk = value;
+                    rs.vkVec = vector;
+                    rs.qk = null;
+                    rs.vkReady = true;
+                    rs.lastDepClearCycle = cycle;
+                    latches++;
+                }
+                if (tag.equals(rs.ql)) {
+                    rs.vl = value;
+                    rs.vlVec = vector;
+                    rs.ql = null;
+                    rs.vlReady = true;
+                    rs.lastDepClearCycle = cycle;
+                    latches++;
+                }
             }
         }
         
@@ -382,6 +859,9 @@ public class TomasuloSimulator {
                 lb.qBase = null;
                 lb.baseReady = true;
                 lb.lastDepClearCycle = cycle;
+                latches++;
+                loadsAwaitingBase--;
+                trackLoadAddress(lb);
             }
         }
         
@@ -391,14 +871,24 @@ public class TomasuloSimulator {
                 sb.qBase = null;
                 sb.baseReady = true;
                 sb.lastDepClearCycle = cycle;
+                latches++;
+                storesAwaitingBase--;
+                trackStoreAddress(sb);
             }
             if (tag.equals(sb.qValue)) {
                 sb.vValue = value;
+                sb.vVector = vector;
                 sb.qValue = null;
                 sb.valueReady = true;
                 sb.lastDepClearCycle = cycle;
+                latches++;
             }
         }
+        
+        // Every latched operand field writes the full result width
+        int words = vector != null ? RegisterFile.VECTOR_LANES : 1;
+        energyModel.recordBroadcast(words, latches);
+        energyModel.recordStationWrite(words * latches);
     }
     
     private double computeResult(ReservationStation rs) {
@@ -407,9 +897,35 @@ public class TomasuloSimulator {
         if (op.equals("SUB.D")) return rs.vj - rs.vk;
         if (op.equals("MUL.D")) return rs.vj * rs.vk;
         if (op.equals("DIV.D")) return rs.vj / rs.vk;
+        if (op.equals("MADD.D")) return rs.vj * rs.vk + rs.vl;
+        if (op.equals("ADD.S")) return (float)rs.vj + (float)rs.vk;
+        if (op.equals("SUB.S")) return (float)rs.vj - (float)rs.vk;
+        if (op.equals("MUL.S")) return (float)rs.vj * (float)rs.vk;
+        if (op.equals("DIV.S")) return (float)rs.vj / (float)rs.vk;
+        if (op.equals("CVT.D.S") || op.equals("CVT.D.W")) return rs.vj;
+        if (op.equals("CVT.S.D")) return (float)rs.vj;
+        if (op.equals("CVT.W.D")) return (int)rs.vj;
+        if (op.equals("DADD") || op.equals("DADDI")) return (long)rs.vj + (long)rs.vk;
+        if (op.equals("DSUB")) return (long)rs.vj - (long)rs.vk;
+        if (op.equals("DMUL")) return (long)rs.vj * (long)rs.vk;
+        if (op.equals("DDIV")) return (long)rs.vk != 0 ? (long)rs.vj / (long)rs.vk : 0.0;
         return 0.0;
     }
     
+    private double[] computeVectorResult(ReservationStation rs) {
+        String op = rs.operation;
+        double[] result = new double[RegisterFile.VECTOR_LANES];
+        for (int i = 0; i < RegisterFile.VECTOR_LANES; i++) {
+            double a = rs.vjVec[i];
+            double b = rs.vkVec[i];
+            if (op.equals("ADDV.D")) result[i] = a + b;
+            else if (op.equals("SUBV.D")) result[i] = a - b;
+            else if (op.equals("MULV.D")) result[i] = a * b;
+            else if (op.equals("DIVV.D")) result[i] = a / b;
+        }
+        return result;
+    }
+    
     private ReservationStation findFreeStation(List<ReservationStation> stations) {
         for (ReservationStation rs : stations) {
             if (!rs.busy) return rs;
@@ -431,54 +947,36 @@ public class TomasuloSimulator {
         return null;
     }
     
-    // Check if effective address clashes with any busy store buffer
-    private boolean hasAddressClashWithStores(int address) {
-        for (StoreBuffer sb : storeBuffers) {
-            if (sb.busy) {
-                // We need to compute the store's effective address
-                // If base is ready, we can compute it
-                if (sb.baseReady) {
-                    int storeAddr = (int)sb.vBase + sb.address;
-                    if (storeAddr == address) {
-                        return true; // Address clash detected
-                    }
-                } else {
-                    // Base not ready yet, conservatively assume clash
-                    // (or we could wait until base is ready)
-                    return true;
-                }
-            }
-        }
-        return false;
+    // Indexes a buffer's effective address once its base is known; the address is
+    // computed here once and stays in the hazard table until the buffer is freed
+    private void trackLoadAddress(LoadBuffer lb) {
+        lb.effectiveAddress = (int)lb.vBase + lb.address;
+        hazards.addLoad(lb.effectiveAddress, lb.instruction.accessSize());
     }
     
-    // Check if effective address clashes with any busy load buffer
-    private boolean hasAddressClashWithLoads(int address) {
-        for (LoadBuffer lb : loadBuffers) {
-            if (lb.busy) {
-                // We need to compute the load's effective address
-                if (lb.baseReady) {
-                    int loadAddr = (int)lb.vBase + lb.address;
-                    if (loadAddr == address) {
-                        return true; // Address clash detected
-                    }
-                } else {
-                    // Base not ready yet, conservatively assume clash
-                    return true;
-                }
-            }
-        }
-        return false;
+    private void trackStoreAddress(StoreBuffer sb) {
+        sb.effectiveAddress = (int)sb.vBase + sb.address;
+        hazards.addStore(sb.effectiveAddress, sb.instruction.accessSize());
+    }
+    
+    // Check if [address, address + size) overlaps any busy store buffer
+    private boolean hasAddressClashWithStores(int address, int size) {
+        // A store whose base is not ready yet conservatively clashes with everything
+        return storesAwaitingBase > 0 || hazards.overlapsStore(address, size);
+    }
+    
+    // Check if [address, address + size) overlaps any busy load buffer
+    private boolean hasAddressClashWithLoads(int address, int size) {
+        return loadsAwaitingBase > 0 || hazards.overlapsLoad(address, size);
     }
     
-    private boolean isComplete() {
+    public boolean isComplete() {
         if (pc < instructions.size()) return false;
         
-        for (ReservationStation rs : addSubStations) {
-            if (rs.busy) return false;
-        }
-        for (ReservationStation rs : mulDivStations) {
-            if (rs.busy) return false;
+        for (List<ReservationStation> stations : stationGroups.values()) {
+            for (ReservationStation rs : stations) {
+                if (rs.busy) return false;
+            }
         }
         for (LoadBuffer lb : loadBuffers) {
             if (lb.busy) return false;
@@ -504,12 +1002,27 @@ public class TomasuloSimulator {
                 instr.execEndTime > 0 ? instr.execEndTime : "-",
                 instr.writeTime > 0 ? instr.writeTime : "-");
         }
+        
+        System.out.println("\nTotal cycles: " + cycle);
+        System.out.printf("Arithmetic lane operations: %d (%.3f per cycle)%n",
+            laneOps, cycle > 0 ? (double)laneOps / cycle : 0.0);
+        
+        System.out.printf("Total energy: %.1f pJ (%.2f pJ per issued instruction)%n",
+            energyModel.getTotalEnergy(),
+            pc == 0 ? 0.0 : energyModel.getTotalEnergy() / pc);
+        System.out.printf("Average power: %.2f mW%n", energyModel.getAveragePower(cycle));
+        System.out.printf("Energy-delay product: %.1f pJ*ns%n", energyModel.getEnergyDelayProduct(cycle));
     }
     
     public static void main(String[] args) {
         try {
             TomasuloSimulator sim = new TomasuloSimulator();
+            String cacheDir = System.getProperty("tomasulo.cache");
+            if (cacheDir != null) {
+                sim.setResultCache(new ResultCache(new File(cacheDir), 64L * 1024 * 1024));
+            }
             sim.loadProgram("program1.txt");
+            System.out.println("Loaded " + sim.getInstructions().size() + " instructions");
             
             // Initialize registers
             sim.setRegister("R2", 100.0);
@@ -522,7 +1035,9 @@ public class TomasuloSimulator {
             sim.initializeMemory(108, 20.0);  // For L.D F2, 20(R2) where R2=100
             sim.initializeMemory(116, 30.0);  // For L.D F2, 0(R3) where R3=200
             
+            System.out.println("\n=== Starting Simulation ===\n");
             sim.run();
+            sim.printResults();
             
             // Show memory after stores (if any)
             System.out.println("\n=== Memory Contents (selected addresses) ===");